@@ -32,9 +32,7 @@ public class DataProcessor {
                         continue;
                     }
                     
-                    String key = textbook.getProvince() + "|" + textbook.getCity() + "|" +
-                            textbook.getDistrict() + "|" + textbook.getGrade() + "|" +
-                            textbook.getSubject() + "|" + textbook.getVersion();
+                    String key = dedupKey(textbook);
 
                     if (!seen.contains(key)) {
                         seen.add(key);
@@ -58,6 +56,15 @@ public class DataProcessor {
         }
     }
 
+    /**
+     * 去重键：省|市|区县|年级|科目|版本
+     */
+    public static String dedupKey(TextbookInfo textbook) {
+        return textbook.getProvince() + "|" + textbook.getCity() + "|" +
+                textbook.getDistrict() + "|" + textbook.getGrade() + "|" +
+                textbook.getSubject() + "|" + textbook.getVersion();
+    }
+
     private List<TextbookInfo> cleanData(List<TextbookInfo> data) {
         try {
             int beforeSize = data.size();
@@ -0,0 +1,654 @@
+package com.textbook.processor;
+
+import com.textbook.spider.TextbookSpider.TextbookInfo;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 多次爬取结果（快照CSV）之间的对比与趋势统计。
+ * 每个快照先按槽位（省|市|区县|年级|科目）哈希分区落盘，之后相邻快照逐个分区并行对比，
+ * 同一时刻堆上只保留正在对比的分区，不会一次性加载全部快照。
+ */
+public class SnapshotComparisonEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotComparisonEngine.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int DEFAULT_PARTITION_COUNT = 64;
+    // 分区阶段每个快照任务同时打开 partitionCount 个分区文件和 1 个源文件，总数需低于常见的 1024 上限
+    private static final int MAX_OPEN_PARTITION_FILES = 512;
+
+    private final int partitionCount;
+    private final int partitionThreadCount;
+    private ExecutorService executorService;
+    private ExecutorService partitionExecutorService;
+
+    public SnapshotComparisonEngine() {
+        this(DEFAULT_PARTITION_COUNT, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SnapshotComparisonEngine(int partitionCount, int threadCount) {
+        this.partitionCount = Math.max(1, partitionCount);
+        this.partitionThreadCount = Math.max(1,
+                Math.min(threadCount, MAX_OPEN_PARTITION_FILES / (this.partitionCount + 1)));
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        this.partitionExecutorService = Executors.newFixedThreadPool(partitionThreadCount);
+    }
+
+    /**
+     * 按给定顺序（从旧到新）对比快照，快照标签取自文件名；文件名重复时改用所在目录名，仍重复则加序号。
+     *
+     * @param snapshotFiles 爬虫输出的CSV文件，至少两个
+     * @param outputDir     结果输出目录
+     */
+    public ComparisonResult compare(List<File> snapshotFiles, File outputDir) {
+        if (snapshotFiles == null || snapshotFiles.size() < 2) {
+            logger.warn("至少需要两个快照才能对比");
+            return ComparisonResult.failed();
+        }
+        return compare(snapshotFiles, resolveLabels(snapshotFiles), outputDir);
+    }
+
+    /**
+     * 按给定顺序（从旧到新）对比快照，对每对相邻快照输出一份变更CSV，并输出一份趋势CSV。
+     *
+     * @param snapshotFiles 爬虫输出的CSV文件，至少两个
+     * @param labels        与快照一一对应且互不重复的标签，用于输出文件名和趋势表表头
+     * @param outputDir     结果输出目录
+     */
+    public ComparisonResult compare(List<File> snapshotFiles, List<String> labels, File outputDir) {
+        if (snapshotFiles == null || snapshotFiles.size() < 2) {
+            logger.warn("至少需要两个快照才能对比");
+            return ComparisonResult.failed();
+        }
+        if (labels == null || labels.size() != snapshotFiles.size()
+                || new HashSet<>(labels).size() != labels.size()) {
+            logger.warn("快照标签数量与快照不一致或存在重复: {}", labels);
+            return ComparisonResult.failed();
+        }
+
+        TrendTable trends = new TrendTable(labels);
+        List<PairSummary> summaries = new ArrayList<>();
+
+        File workDir = null;
+        try {
+            workDir = Files.createTempDirectory("snapshot-partitions").toFile();
+            FileUtils.forceMkdir(outputDir);
+
+            logger.info("开始分区 {} 个快照，分区数: {}，并发数: {}，预计同时打开文件数: {}",
+                    snapshotFiles.size(), partitionCount, partitionThreadCount,
+                    partitionThreadCount * (partitionCount + 1));
+            List<File> snapshotDirs = partitionSnapshots(snapshotFiles, workDir);
+
+            for (int i = 0; i + 1 < snapshotDirs.size(); i++) {
+                File pairFile = new File(outputDir,
+                        "教材对比_" + labels.get(i) + "_vs_" + labels.get(i + 1) + ".csv");
+                PairSummary summary = comparePair(snapshotDirs.get(i), snapshotDirs.get(i + 1),
+                        i, labels, trends, pairFile);
+                summaries.add(summary);
+                logger.info("{} -> {}: 新增 {} 条，删除 {} 条，链接变更 {} 条，版本切换 {} 个槽位",
+                        summary.getFromLabel(), summary.getToLabel(), summary.getAdded(),
+                        summary.getRemoved(), summary.getChanged(), summary.getSwitched());
+            }
+
+            saveTrendsToCSV(trends, new File(outputDir, "教材版本趋势.csv"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logException("快照对比被中断", e);
+            return new ComparisonResult(false, summaries, trends);
+        } catch (Exception e) {
+            logException("快照对比过程出错", e);
+            return new ComparisonResult(false, summaries, trends);
+        } finally {
+            // awaitAll 保证此时已没有任务在读写分区文件
+            if (workDir != null) {
+                FileUtils.deleteQuietly(workDir);
+            }
+        }
+
+        return new ComparisonResult(true, summaries, trends);
+    }
+
+    /**
+     * 文件名互不重复时直接使用；否则（如多个日期目录下同名的爬虫输出）改用父目录名，仍重复则加序号前缀
+     */
+    static List<String> resolveLabels(List<File> snapshotFiles) {
+        List<String> labels = new ArrayList<>();
+        for (File file : snapshotFiles) {
+            labels.add(FilenameUtils.getBaseName(file.getName()));
+        }
+        if (new HashSet<>(labels).size() == labels.size()) {
+            return labels;
+        }
+
+        List<String> parentLabels = new ArrayList<>();
+        for (File file : snapshotFiles) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            parentLabels.add(parent != null ? parent.getName() : "");
+        }
+        if (new HashSet<>(parentLabels).size() == parentLabels.size() && !parentLabels.contains("")) {
+            return parentLabels;
+        }
+
+        List<String> indexedLabels = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            indexedLabels.add((i + 1) + "_" + labels.get(i));
+        }
+        return indexedLabels;
+    }
+
+    /**
+     * 将每个快照流式拆分为 partitionCount 个分区文件，并发数受 MAX_OPEN_PARTITION_FILES 限制
+     */
+    private List<File> partitionSnapshots(List<File> snapshotFiles, File workDir) throws Exception {
+        List<File> snapshotDirs = new ArrayList<>();
+        List<Future<Void>> futures = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        for (int i = 0; i < snapshotFiles.size(); i++) {
+            File source = snapshotFiles.get(i);
+            File snapshotDir = new File(workDir, "snapshot-" + i);
+            FileUtils.forceMkdir(snapshotDir);
+            snapshotDirs.add(snapshotDir);
+            futures.add(partitionExecutorService.submit(() -> {
+                if (!failed.get()) {
+                    partitionSnapshot(source, snapshotDir);
+                }
+                return null;
+            }));
+        }
+
+        awaitAll(futures, failed, result -> { });
+        return snapshotDirs;
+    }
+
+    private void partitionSnapshot(File source, File snapshotDir) throws IOException {
+        CSVWriter[] writers = new CSVWriter[partitionCount];
+        long rows = 0;
+        try (CSVReader reader = new CSVReader(new FileReader(source, StandardCharsets.UTF_8))) {
+            for (int p = 0; p < partitionCount; p++) {
+                writers[p] = new CSVWriter(new BufferedWriter(
+                        new FileWriter(partitionFile(snapshotDir, p), StandardCharsets.UTF_8)));
+            }
+
+            reader.skip(1); // 跳过表头
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 6) {
+                    continue;
+                }
+                writers[partitionOf(slotKey(row[0], row[1], row[2], row[3], row[4]))].writeNext(row);
+                rows++;
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read snapshot: " + source, e);
+        } finally {
+            for (CSVWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+        logger.info("快照 {} 分区完成，共 {} 条", source.getName(), rows);
+    }
+
+    /**
+     * 对相邻两个快照的全部分区并行做连接，结果按分区序号依次写入 pairFile，保证输出顺序稳定
+     */
+    private PairSummary comparePair(File fromDir, File toDir, int fromIndex, List<String> labels,
+                                    TrendTable trends, File pairFile) throws Exception {
+        PairSummary summary = new PairSummary(labels.get(fromIndex), labels.get(fromIndex + 1));
+
+        try (CSVWriter csvWriter = new CSVWriter(new FileWriter(pairFile, StandardCharsets.UTF_8))) {
+            String[] header = {"变更类型", "省", "市", "区/县", "年级", "科目",
+                    "原版本", "新版本", "原课本链接", "新课本链接"};
+            csvWriter.writeNext(header);
+
+            List<Future<List<String[]>>> futures = new ArrayList<>();
+            AtomicBoolean failed = new AtomicBoolean(false);
+            for (int p = 0; p < partitionCount; p++) {
+                int partition = p;
+                futures.add(executorService.submit(() -> {
+                    if (failed.get()) {
+                        return new ArrayList<>();
+                    }
+                    Map<String, TextbookInfo> from = loadPartition(partitionFile(fromDir, partition));
+                    Map<String, TextbookInfo> to = loadPartition(partitionFile(toDir, partition));
+
+                    // 首个快照只会作为"旧"一侧出现，其余快照在作为"新"一侧时统计
+                    if (fromIndex == 0) {
+                        trends.count(0, from.values());
+                    }
+                    trends.count(fromIndex + 1, to.values());
+
+                    return joinPartition(from, to, summary);
+                }));
+            }
+
+            awaitAll(futures, failed, csvWriter::writeAll);
+        }
+
+        logger.info("对比结果已保存到: {}", pairFile.getPath());
+        return summary;
+    }
+
+    /**
+     * 按提交顺序等待全部任务并依次处理结果。任一任务失败时置位 failed，让尚未开始的任务直接返回，
+     * 并等待所有仍在运行的任务结束后再抛出首个异常，调用方随后才能安全地关闭输出或删除分区文件。
+     */
+    private <T> void awaitAll(List<Future<T>> futures, AtomicBoolean failed, Consumer<T> consumer)
+            throws Exception {
+        Exception firstError = null;
+        for (Future<T> future : futures) {
+            try {
+                T result = future.get();
+                if (firstError == null) {
+                    consumer.accept(result);
+                }
+            } catch (ExecutionException e) {
+                failed.set(true);
+                if (firstError == null) {
+                    firstError = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            } catch (InterruptedException e) {
+                // 被中断时同样等待运行中的任务结束，最后再恢复中断状态
+                failed.set(true);
+                if (firstError == null) {
+                    firstError = e;
+                }
+                try {
+                    future.get();
+                } catch (Exception ignored) {
+                    // 该任务的结果已不再需要
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+    /**
+     * 读取一个分区，按 DataProcessor 的去重键去重，并丢弃省/市/科目为空的记录
+     */
+    private Map<String, TextbookInfo> loadPartition(File file) throws IOException {
+        Map<String, TextbookInfo> records = new LinkedHashMap<>();
+        try (CSVReader reader = new CSVReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                TextbookInfo textbook = new TextbookInfo(row[0], row[1], row[2], row[3], row[4], row[5],
+                        row.length > 6 ? row[6] : "");
+                if (isBlank(textbook.getProvince()) || isBlank(textbook.getCity())
+                        || isBlank(textbook.getSubject())) {
+                    continue;
+                }
+                records.putIfAbsent(DataProcessor.dedupKey(textbook), textbook);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read partition: " + file, e);
+        }
+        return records;
+    }
+
+    private List<String[]> joinPartition(Map<String, TextbookInfo> from, Map<String, TextbookInfo> to,
+                                         PairSummary summary) {
+        List<String[]> rows = new ArrayList<>();
+        Map<String, List<TextbookInfo>> removedBySlot = new LinkedHashMap<>();
+        Map<String, List<TextbookInfo>> addedBySlot = new LinkedHashMap<>();
+
+        for (Map.Entry<String, TextbookInfo> entry : from.entrySet()) {
+            TextbookInfo before = entry.getValue();
+            TextbookInfo after = to.get(entry.getKey());
+            if (after == null) {
+                removedBySlot.computeIfAbsent(slotKey(before), k -> new ArrayList<>()).add(before);
+            } else if (!Objects.equals(before.getBookUrl(), after.getBookUrl())) {
+                rows.add(changeRow(ChangeType.CHANGED, before, before.getVersion(), after.getVersion(),
+                        before.getBookUrl(), after.getBookUrl()));
+                summary.changed.incrementAndGet();
+            }
+        }
+        for (Map.Entry<String, TextbookInfo> entry : to.entrySet()) {
+            if (!from.containsKey(entry.getKey())) {
+                TextbookInfo after = entry.getValue();
+                addedBySlot.computeIfAbsent(slotKey(after), k -> new ArrayList<>()).add(after);
+            }
+        }
+
+        // 同一槽位既有删除又有新增，视为一次版本切换，每个原版本/新版本组合各输出一行
+        for (Map.Entry<String, List<TextbookInfo>> entry : removedBySlot.entrySet()) {
+            List<TextbookInfo> removed = entry.getValue();
+            List<TextbookInfo> added = addedBySlot.remove(entry.getKey());
+            if (added != null) {
+                for (TextbookInfo before : removed) {
+                    for (TextbookInfo after : added) {
+                        rows.add(changeRow(ChangeType.VERSION_SWITCHED, before, before.getVersion(),
+                                after.getVersion(), before.getBookUrl(), after.getBookUrl()));
+                    }
+                }
+                summary.switched.incrementAndGet();
+            } else {
+                for (TextbookInfo before : removed) {
+                    rows.add(changeRow(ChangeType.REMOVED, before, before.getVersion(), "",
+                            before.getBookUrl(), ""));
+                    summary.removed.incrementAndGet();
+                }
+            }
+        }
+        for (List<TextbookInfo> added : addedBySlot.values()) {
+            for (TextbookInfo after : added) {
+                rows.add(changeRow(ChangeType.ADDED, after, "", after.getVersion(), "", after.getBookUrl()));
+                summary.added.incrementAndGet();
+            }
+        }
+
+        return rows;
+    }
+
+    private String[] changeRow(ChangeType type, TextbookInfo textbook, String oldVersion, String newVersion,
+                               String oldUrl, String newUrl) {
+        return new String[]{
+                type.getLabel(),
+                textbook.getProvince(),
+                textbook.getCity(),
+                textbook.getDistrict(),
+                textbook.getGrade(),
+                textbook.getSubject(),
+                oldVersion,
+                newVersion,
+                oldUrl,
+                newUrl
+        };
+    }
+
+    private void saveTrendsToCSV(TrendTable trends, File file) throws IOException {
+        try (FileWriter fileWriter = new FileWriter(file, StandardCharsets.UTF_8);
+             CSVWriter csvWriter = new CSVWriter(fileWriter)) {
+
+            List<String> header = new ArrayList<>(Arrays.asList("维度", "取值"));
+            header.addAll(trends.getLabels());
+            csvWriter.writeNext(header.toArray(new String[0]));
+
+            for (Dimension dimension : Dimension.values()) {
+                for (Map.Entry<String, long[]> entry : trends.getCounts(dimension).entrySet()) {
+                    String[] row = new String[2 + entry.getValue().length];
+                    row[0] = dimension.getLabel();
+                    row[1] = entry.getKey();
+                    for (int i = 0; i < entry.getValue().length; i++) {
+                        row[2 + i] = String.valueOf(entry.getValue()[i]);
+                    }
+                    csvWriter.writeNext(row);
+                }
+            }
+
+            logger.info("趋势数据已保存到: {}", file.getPath());
+        }
+    }
+
+    public void printStatistics(ComparisonResult result) {
+        try {
+            if (result != null && !result.isSuccess()) {
+                System.out.println("快照对比失败，以下统计可能不完整");
+            }
+            if (result == null || result.getPairs().isEmpty()) {
+                logger.warn("没有对比结果可统计");
+                System.out.println("没有对比结果可统计");
+                return;
+            }
+
+            System.out.println("=".repeat(60));
+            System.out.println("快照对比统计信息");
+            System.out.println("=".repeat(60));
+
+            for (PairSummary pair : result.getPairs()) {
+                System.out.println(pair.getFromLabel() + " -> " + pair.getToLabel()
+                        + ": 新增 " + pair.getAdded() + " 条，删除 " + pair.getRemoved()
+                        + " 条，链接变更 " + pair.getChanged() + " 条，版本切换 " + pair.getSwitched() + " 个槽位");
+            }
+
+            System.out.println("\n版本分布趋势 (" + String.join(" / ", result.getTrends().getLabels()) + "):");
+            result.getTrends().getCounts(Dimension.VERSION).entrySet().stream()
+                    .sorted(Comparator.comparing(Map.Entry::getKey))
+                    .forEach(entry -> System.out.println("  " + entry.getKey() + ": "
+                            + Arrays.toString(entry.getValue())));
+
+            System.out.println("=".repeat(60));
+        } catch (Exception e) {
+            logException("生成对比统计信息时出错", e);
+        }
+    }
+
+    public void shutdown() {
+        shutdownExecutor(partitionExecutorService);
+        shutdownExecutor(executorService);
+    }
+
+    private void shutdownExecutor(ExecutorService executor) {
+        try {
+            executor.shutdown();
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.error("线程池未能正常关闭");
+                }
+            }
+            logger.info("线程池已关闭");
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            logException("线程池关闭时被中断", e);
+        }
+    }
+
+    private File partitionFile(File snapshotDir, int partition) {
+        return new File(snapshotDir, "part-" + partition + ".csv");
+    }
+
+    /**
+     * 按槽位分区，保证同一去重键以及同一槽位下的不同版本落在同一分区
+     */
+    private int partitionOf(String slotKey) {
+        return Math.floorMod(slotKey.hashCode(), partitionCount);
+    }
+
+    private static String slotKey(TextbookInfo textbook) {
+        return slotKey(textbook.getProvince(), textbook.getCity(), textbook.getDistrict(),
+                textbook.getGrade(), textbook.getSubject());
+    }
+
+    private static String slotKey(String province, String city, String district, String grade, String subject) {
+        return province + "|" + city + "|" + district + "|" + grade + "|" + subject;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * 结构化记录异常信息到日志文件
+     */
+    private void logException(String message, Exception e) {
+        try {
+            // 构建结构化异常信息
+            Map<String, Object> errorInfo = new HashMap<>();
+            errorInfo.put("timestamp", System.currentTimeMillis());
+            errorInfo.put("message", message);
+            errorInfo.put("exception", e.getClass().getName());
+            errorInfo.put("errorMessage", e.getMessage());
+
+            // 获取堆栈信息
+            StringWriter sw = new StringWriter();
+            PrintWriter pw = new PrintWriter(sw);
+            e.printStackTrace(pw);
+            errorInfo.put("stackTrace", sw.toString());
+
+            // 转换为JSON格式并记录
+            String jsonError = objectMapper.writeValueAsString(errorInfo);
+            logger.error(jsonError);
+
+            // 同时打印到控制台
+            System.err.println("发生异常: " + message);
+
+            // 写入到error_logs.txt文件
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter("error_logs.txt", true))) {
+                writer.write(jsonError);
+                writer.newLine();
+            }
+        } catch (Exception logError) {
+            // 如果日志记录本身失败，直接打印
+            System.err.println("日志记录失败: " + logError.getMessage());
+        }
+    }
+
+    public enum ChangeType {
+        ADDED("新增"),
+        REMOVED("删除"),
+        CHANGED("链接变更"),
+        VERSION_SWITCHED("版本切换");
+
+        private final String label;
+
+        ChangeType(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    public enum Dimension {
+        PROVINCE("省"),
+        GRADE("年级"),
+        SUBJECT("科目"),
+        VERSION("版本"),
+        PROVINCE_VERSION("省-版本"),
+        PROVINCE_SUBJECT_VERSION("省-科目-版本");
+
+        private final String label;
+
+        Dimension(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+
+        String keyOf(TextbookInfo textbook) {
+            switch (this) {
+                case PROVINCE: return textbook.getProvince();
+                case GRADE: return textbook.getGrade();
+                case SUBJECT: return textbook.getSubject();
+                case VERSION: return textbook.getVersion();
+                case PROVINCE_VERSION: return textbook.getProvince() + "|" + textbook.getVersion();
+                default: return textbook.getProvince() + "|" + textbook.getSubject() + "|" + textbook.getVersion();
+            }
+        }
+    }
+
+    /**
+     * 各维度取值在每个快照中的记录数，分区任务并发累加
+     */
+    public static class TrendTable {
+        private final List<String> labels;
+        private final Map<Dimension, ConcurrentHashMap<String, AtomicLongArray>> counts =
+                new EnumMap<>(Dimension.class);
+
+        public TrendTable(List<String> labels) {
+            this.labels = labels;
+            for (Dimension dimension : Dimension.values()) {
+                counts.put(dimension, new ConcurrentHashMap<>());
+            }
+        }
+
+        void count(int snapshotIndex, Collection<TextbookInfo> textbooks) {
+            for (TextbookInfo textbook : textbooks) {
+                for (Dimension dimension : Dimension.values()) {
+                    counts.get(dimension)
+                            .computeIfAbsent(Objects.toString(dimension.keyOf(textbook), ""),
+                                    k -> new AtomicLongArray(labels.size()))
+                            .incrementAndGet(snapshotIndex);
+                }
+            }
+        }
+
+        public List<String> getLabels() { return labels; }
+
+        public Map<String, long[]> getCounts(Dimension dimension) {
+            Map<String, long[]> result = new TreeMap<>();
+            counts.get(dimension).forEach((value, array) -> {
+                long[] copy = new long[array.length()];
+                for (int i = 0; i < copy.length; i++) {
+                    copy[i] = array.get(i);
+                }
+                result.put(value, copy);
+            });
+            return result;
+        }
+    }
+
+    /**
+     * 相邻两个快照的变更计数。新增、删除、链接变更按记录计数，版本切换按槽位（省|市|区县|年级|科目）计数
+     */
+    public static class PairSummary {
+        private final String fromLabel;
+        private final String toLabel;
+        private final AtomicLong added = new AtomicLong();
+        private final AtomicLong removed = new AtomicLong();
+        private final AtomicLong changed = new AtomicLong();
+        private final AtomicLong switched = new AtomicLong();
+
+        public PairSummary(String fromLabel, String toLabel) {
+            this.fromLabel = fromLabel;
+            this.toLabel = toLabel;
+        }
+
+        public String getFromLabel() { return fromLabel; }
+        public String getToLabel() { return toLabel; }
+        public long getAdded() { return added.get(); }
+        public long getRemoved() { return removed.get(); }
+        public long getChanged() { return changed.get(); }
+        /** 发生版本切换的槽位数，CSV 中每个槽位按原版本/新版本组合可能对应多行 */
+        public long getSwitched() { return switched.get(); }
+    }
+
+    public static class ComparisonResult {
+        private final boolean success;
+        private final List<PairSummary> pairs;
+        private final TrendTable trends;
+
+        public ComparisonResult(boolean success, List<PairSummary> pairs, TrendTable trends) {
+            this.success = success;
+            this.pairs = pairs;
+            this.trends = trends;
+        }
+
+        static ComparisonResult failed() {
+            return new ComparisonResult(false, new ArrayList<>(), new TrendTable(new ArrayList<>()));
+        }
+
+        /** 对比失败时 pairs 和 trends 只包含出错前已完成的部分 */
+        public boolean isSuccess() { return success; }
+        public List<PairSummary> getPairs() { return pairs; }
+        public TrendTable getTrends() { return trends; }
+    }
+}
@@ -0,0 +1,229 @@
+package com.textbook.processor;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.textbook.processor.SnapshotComparisonEngine.ComparisonResult;
+import com.textbook.processor.SnapshotComparisonEngine.Dimension;
+import com.textbook.processor.SnapshotComparisonEngine.PairSummary;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotComparisonEngineTest {
+    private static final String[] HEADER = {"省", "市", "区/县", "年级", "科目", "版本", "课本链接"};
+
+    @TempDir
+    Path tempDir;
+
+    private SnapshotComparisonEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SnapshotComparisonEngine(4, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void detectsAddRemoveUrlChangeAndVersionSwitch() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("北京", "北京", "海淀区", "七年级", "语文", "部编版", "u2"),
+                row("河北", "石家庄", "长安区", "一年级", "英语", "外研版", "u3"));
+        File week2 = snapshot("week2.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u4"),
+                row("北京", "北京", "海淀区", "七年级", "语文", "部编版", "u2-new"),
+                row("河北", "石家庄", "桥西区", "一年级", "英语", "外研版", "u5"));
+
+        ComparisonResult result = engine.compare(List.of(week1, week2), outputDir());
+
+        assertTrue(result.isSuccess());
+        PairSummary pair = result.getPairs().get(0);
+        assertEquals(1, pair.getAdded());
+        assertEquals(1, pair.getRemoved());
+        assertEquals(1, pair.getChanged());
+        assertEquals(1, pair.getSwitched());
+
+        List<String[]> rows = readPairRows("week1", "week2");
+        assertEquals(4, rows.size());
+        assertRow(rows, "版本切换", "海淀区", "数学", "人教版", "北师大版");
+        assertRow(rows, "链接变更", "海淀区", "语文", "部编版", "部编版");
+        assertRow(rows, "删除", "长安区", "英语", "外研版", "");
+        assertRow(rows, "新增", "桥西区", "英语", "", "外研版");
+    }
+
+    @Test
+    void emitsOneRowPerOldAndNewVersionInSwitchedSlot() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("北京", "北京", "海淀区", "七年级", "数学", "苏教版", "u2"));
+        File week2 = snapshot("week2.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u3"));
+
+        ComparisonResult result = engine.compare(List.of(week1, week2), outputDir());
+
+        assertEquals(1, result.getPairs().get(0).getSwitched());
+        List<String[]> rows = readPairRows("week1", "week2");
+        assertEquals(2, rows.size());
+        assertRow(rows, "版本切换", "海淀区", "数学", "人教版", "北师大版");
+        assertRow(rows, "版本切换", "海淀区", "数学", "苏教版", "北师大版");
+    }
+
+    @Test
+    void dropsRowsWithBlankProvinceCityOrSubject() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"));
+        File week2 = snapshot("week2.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("", "北京", "海淀区", "七年级", "语文", "部编版", "u2"),
+                row("北京", "", "海淀区", "七年级", "语文", "部编版", "u3"),
+                row("北京", "北京", "海淀区", "七年级", "", "部编版", "u4"));
+
+        ComparisonResult result = engine.compare(List.of(week1, week2), outputDir());
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, result.getPairs().get(0).getAdded());
+        assertTrue(readPairRows("week1", "week2").isEmpty());
+        assertArrayEquals(new long[]{1, 1}, result.getTrends().getCounts(Dimension.PROVINCE).get("北京"));
+    }
+
+    @Test
+    void keepsFirstOfDuplicateRows() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1-dup"));
+        File week2 = snapshot("week2.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"));
+
+        ComparisonResult result = engine.compare(List.of(week1, week2), outputDir());
+
+        PairSummary pair = result.getPairs().get(0);
+        assertEquals(0, pair.getAdded());
+        assertEquals(0, pair.getRemoved());
+        assertEquals(0, pair.getChanged());
+        assertArrayEquals(new long[]{1, 1}, result.getTrends().getCounts(Dimension.VERSION).get("人教版"));
+    }
+
+    @Test
+    void countsTrendsAcrossSnapshotsIncludingFirst() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"),
+                row("北京", "北京", "朝阳区", "七年级", "数学", "人教版", "u2"));
+        File week2 = snapshot("week2.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u3"),
+                row("北京", "北京", "朝阳区", "七年级", "数学", "人教版", "u2"));
+        File week3 = snapshot("week3.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u3"),
+                row("北京", "北京", "朝阳区", "七年级", "数学", "北师大版", "u4"),
+                row("河北", "石家庄", "长安区", "一年级", "数学", "北师大版", "u5"));
+
+        ComparisonResult result = engine.compare(List.of(week1, week2, week3), outputDir());
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getPairs().size());
+        assertEquals(List.of("week1", "week2", "week3"), result.getTrends().getLabels());
+        Map<String, long[]> versions = result.getTrends().getCounts(Dimension.VERSION);
+        assertArrayEquals(new long[]{2, 1, 0}, versions.get("人教版"));
+        assertArrayEquals(new long[]{0, 1, 3}, versions.get("北师大版"));
+        assertArrayEquals(new long[]{0, 1, 2},
+                result.getTrends().getCounts(Dimension.PROVINCE_VERSION).get("北京|北师大版"));
+        assertTrue(new File(outputDir(), "教材版本趋势.csv").exists());
+    }
+
+    @Test
+    void failsWithFewerThanTwoSnapshots() throws Exception {
+        File week1 = snapshot("week1.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"));
+
+        ComparisonResult single = engine.compare(List.of(week1), outputDir());
+        ComparisonResult none = engine.compare(new ArrayList<>(), outputDir());
+
+        assertFalse(single.isSuccess());
+        assertTrue(single.getPairs().isEmpty());
+        assertFalse(none.isSuccess());
+    }
+
+    @Test
+    void usesParentDirectoryWhenFileNamesCollide() throws Exception {
+        File first = snapshot("2024-09-01/全国中小学教材版本.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "人教版", "u1"));
+        File second = snapshot("2024-09-08/全国中小学教材版本.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u2"));
+        File third = snapshot("2024-09-15/全国中小学教材版本.csv",
+                row("北京", "北京", "海淀区", "七年级", "数学", "北师大版", "u2"));
+
+        ComparisonResult result = engine.compare(List.of(first, second, third), outputDir());
+
+        assertEquals(List.of("2024-09-01", "2024-09-08", "2024-09-15"), result.getTrends().getLabels());
+        assertEquals(1, readPairRows("2024-09-01", "2024-09-08").size());
+        assertTrue(readPairRows("2024-09-08", "2024-09-15").isEmpty());
+    }
+
+    @Test
+    void writesRowsInStableOrder() throws Exception {
+        String[][] before = new String[40][];
+        String[][] after = new String[40][];
+        for (int i = 0; i < 40; i++) {
+            before[i] = row("省" + i, "市" + i, "区" + i, "七年级", "数学", "人教版", "u" + i);
+            after[i] = row("省" + i, "市" + i, "区" + i, "七年级", "数学", "北师大版", "v" + i);
+        }
+        File week1 = snapshot("week1.csv", before);
+        File week2 = snapshot("week2.csv", after);
+        File pairFile = new File(outputDir(), "教材对比_week1_vs_week2.csv");
+
+        engine.compare(List.of(week1, week2), outputDir());
+        byte[] firstRun = Files.readAllBytes(pairFile.toPath());
+        engine.compare(List.of(week1, week2), outputDir());
+        byte[] secondRun = Files.readAllBytes(pairFile.toPath());
+
+        assertArrayEquals(firstRun, secondRun);
+    }
+
+    private File outputDir() {
+        return tempDir.resolve("out").toFile();
+    }
+
+    private File snapshot(String name, String[]... rows) throws IOException {
+        File file = tempDir.resolve("in").resolve(name).toFile();
+        file.getParentFile().mkdirs();
+        try (CSVWriter csvWriter = new CSVWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            csvWriter.writeNext(HEADER);
+            for (String[] row : rows) {
+                csvWriter.writeNext(row);
+            }
+        }
+        return file;
+    }
+
+    private String[] row(String... values) {
+        return values;
+    }
+
+    private List<String[]> readPairRows(String fromLabel, String toLabel) throws Exception {
+        File file = new File(outputDir(), "教材对比_" + fromLabel + "_vs_" + toLabel + ".csv");
+        try (CSVReader reader = new CSVReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            List<String[]> rows = reader.readAll();
+            return rows.subList(1, rows.size());
+        }
+    }
+
+    private void assertRow(List<String[]> rows, String type, String district, String subject,
+                           String oldVersion, String newVersion) {
+        boolean found = rows.stream().anyMatch(r -> r[0].equals(type) && r[3].equals(district)
+                && r[5].equals(subject) && r[6].equals(oldVersion) && r[7].equals(newVersion));
+        assertTrue(found, "缺少变更记录: " + type + " " + district + " " + subject
+                + " " + oldVersion + " -> " + newVersion);
+    }
+}